@@ -0,0 +1,136 @@
+package com.pluralsight;
+
+import java.util.Arrays;
+
+/**
+ * Sorted index from amount (in cents) to row location, held in two parallel long arrays.
+ * No transaction objects are kept: a range query returns locations, and only those rows are read back.
+ * Costs 16 bytes per row. Entries added after sort() go to an unsorted tail that queries scan;
+ * the next rebuild sorts them in.
+ */
+public class AmountIndex {
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private long[] cents = new long[1024];
+    private long[] locations = new long[1024];
+    private int size;
+    private int sortedSize;
+
+    public void add(long amountCents, long location) {
+        if (size == cents.length) {
+            cents = Arrays.copyOf(cents, size * 2);
+            locations = Arrays.copyOf(locations, size * 2);
+        }
+        cents[size] = amountCents;
+        locations[size] = location;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+        sortedSize = 0;
+    }
+
+    /**
+     * Sorts every entry by amount.
+     */
+    public void sort() {
+        sort(0, size);
+        sortedSize = size;
+    }
+
+    /**
+     * Returns the locations of every row whose amount is between from and to (inclusive), in ascending order.
+     */
+    public long[] locationsBetween(long from, long to) {
+        long[] result = new long[16];
+        int count = 0;
+
+        // First entry >= from in the sorted part
+        int low = 0;
+        int high = sortedSize;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cents[middle] < from) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        for (int i = low; i < sortedSize && cents[i] <= to; i++) {
+            if (count == result.length) result = Arrays.copyOf(result, count * 2);
+            result[count++] = locations[i];
+        }
+        for (int i = sortedSize; i < size; i++) {
+            if (cents[i] >= from && cents[i] <= to) {
+                if (count == result.length) result = Arrays.copyOf(result, count * 2);
+                result[count++] = locations[i];
+            }
+        }
+
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    // =============================================================
+    // PRIVATE HELPER METHODS
+    // =============================================================
+
+    /**
+     * Sorts [from, to) by amount, moving locations along with their amounts.
+     * Three-way quicksort, since many rows share the same amount.
+     */
+    private void sort(int from, int to) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            long pivot = cents[(from + to) >>> 1];
+            int lessEnd = from;
+            int i = from;
+            int greaterStart = to;
+
+            while (i < greaterStart) {
+                if (cents[i] < pivot) {
+                    swap(lessEnd++, i++);
+                } else if (cents[i] > pivot) {
+                    swap(i, --greaterStart);
+                } else {
+                    i++;
+                }
+            }
+
+            // Recurse into the smaller side and loop on the larger one to bound the stack depth
+            if (lessEnd - from < to - greaterStart) {
+                sort(from, lessEnd);
+                from = greaterStart;
+            } else {
+                sort(greaterStart, to);
+                to = lessEnd;
+            }
+        }
+
+        for (int i = from + 1; i < to; i++) {
+            long amount = cents[i];
+            long location = locations[i];
+            int j = i - 1;
+            while (j >= from && cents[j] > amount) {
+                cents[j + 1] = cents[j];
+                locations[j + 1] = locations[j];
+                j--;
+            }
+            cents[j + 1] = amount;
+            locations[j + 1] = location;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long amount = cents[a];
+        cents[a] = cents[b];
+        cents[b] = amount;
+
+        long location = locations[a];
+        locations[a] = locations[b];
+        locations[b] = location;
+    }
+}
@@ -0,0 +1,131 @@
+package com.pluralsight;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import com.pluralsight.sketch.Hashing;
+
+/**
+ * Set of 64-bit transaction keys stored off-heap in an open-addressing (linear probing) table.
+ * The table lives in a direct buffer, so lookups and inserts allocate nothing on the Java heap.
+ * Keys are hashes, not the transactions themselves: two different transactions are only mistaken
+ * for duplicates if their 64-bit keys collide. Each field is length-prefixed and mixed before the next
+ * one is added, so the only way to collide is a full 64-bit hash collision.
+ */
+public class DuplicateFilter {
+
+    private static final int MIN_CAPACITY = 1 << 10;
+    // Largest table a single direct buffer can address (1 GB, ~100 million keys)
+    private static final int MAX_CAPACITY = 1 << 27;
+    private static final long EMPTY = 0L;
+    private static final double MAX_LOAD = 0.75;
+
+    private ByteBuffer table;
+    private int mask;
+    private int size;
+
+    public DuplicateFilter(int expectedKeys) {
+        allocate(capacityFor(expectedKeys));
+    }
+
+    /**
+     * Builds the key for a transaction from (date, time, vendor, description, amount in cents).
+     * Fields are hashed one after another with their lengths, so text cannot shift from one field to the next.
+     */
+    public static long key(LocalDate date, String time, String vendor, String description, double amount) {
+        long h = Hashing.mix(date.toEpochDay());
+        h = Hashing.hash64(h, time);
+        h = Hashing.hash64(h, vendor);
+        h = Hashing.hash64(h, description);
+        h = Hashing.mix(h ^ Math.round(amount * 100));
+        // 0 marks an empty slot
+        return h == EMPTY ? 1L : h;
+    }
+
+    public boolean contains(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = table.getLong(slot * Long.BYTES);
+            if (current == key) return true;
+            if (current == EMPTY) return false;
+        }
+    }
+
+    /**
+     * Adds the key. Returns false if it was already present. Check isFull() first.
+     */
+    public boolean add(long key) {
+        if (size + 1 > (mask + 1) * MAX_LOAD) {
+            grow();
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = table.getLong(slot * Long.BYTES);
+            if (current == key) return false;
+            if (current == EMPTY) {
+                table.putLong(slot * Long.BYTES, key);
+                size++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Empties the filter and makes room for expectedKeys without growing.
+     * Allocates a new table only when the current one is too small.
+     */
+    public void clear(int expectedKeys) {
+        int capacity = capacityFor(expectedKeys);
+        if (capacity > mask + 1) {
+            allocate(capacity);
+        } else {
+            for (int slot = 0; slot <= mask; slot++) {
+                table.putLong(slot * Long.BYTES, EMPTY);
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * True once the largest possible table is at its load limit; add() must not be called then.
+     */
+    public boolean isFull() {
+        return size + 1 > MAX_CAPACITY * MAX_LOAD;
+    }
+
+    // =============================================================
+    // PRIVATE HELPER METHODS
+    // =============================================================
+
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    private void grow() {
+        ByteBuffer old = table;
+        int oldCapacity = mask + 1;
+        if (oldCapacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Duplicate filter is full");
+        }
+        allocate(oldCapacity * 2);
+        size = 0;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long key = old.getLong(slot * Long.BYTES);
+            if (key != EMPTY) {
+                add(key);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        // Direct buffers start zeroed, so every slot is EMPTY
+        table = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder());
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(long expectedKeys) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * MAX_LOAD < expectedKeys && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -14,6 +14,9 @@ public class Main {
 
     public static void main(String[] args) {
         TransactionServices services = new TransactionServices();
+        // Pack closed-out years into the compressed archive before the ledger is loaded
+        services.archiveBefore(LocalDate.now().withDayOfYear(1));
+        services.loadIndexes();
         TransactionDisplay display = new TransactionDisplay(services);
 
         display.display();
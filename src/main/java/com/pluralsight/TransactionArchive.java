@@ -0,0 +1,297 @@
+package com.pluralsight;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Block-compressed archive for closed-out ledger rows.
+ * Layout: [block 0][block 1]...[footer index][footer offset (long)][magic (int)]
+ * Each block is an independently deflated run of "date|time|description|vendor|amount" lines,
+ * and the footer records every block's offset, size, date range and row count.
+ */
+public class TransactionArchive {
+
+    private static final int MAGIC = 0x54584152; // "TXAR"
+    private static final int ROWS_PER_BLOCK = 4096;
+    private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int BLOCK_ENTRY_SIZE = Long.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    private final String fileLocation;
+
+    public TransactionArchive(String fileLocation) {
+        this.fileLocation = fileLocation;
+    }
+
+    // =============================================================
+    // 1. WRITING
+    // =============================================================
+
+    /**
+     * Writes a complete new archive to target: every existing block copied unchanged,
+     * the given lines packed into new compressed blocks, and a footer covering all of them.
+     * The current archive is never modified, so callers can move target into place atomically.
+     */
+    public void writeAppended(List<String> lines, Path target) throws IOException {
+        List<Block> index = readIndex();
+
+        try (RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+            file.setLength(0);
+            long offset = 0;
+
+            if (!index.isEmpty()) {
+                try (FileChannel source = FileChannel.open(Path.of(fileLocation), StandardOpenOption.READ)) {
+                    long dataLength = footerOffset(source);
+                    while (offset < dataLength) {
+                        offset += source.transferTo(offset, dataLength - offset, file.getChannel());
+                    }
+                }
+                file.seek(offset);
+            }
+
+            for (int start = 0; start < lines.size(); start += ROWS_PER_BLOCK) {
+                List<String> chunk = lines.subList(start, Math.min(start + ROWS_PER_BLOCK, lines.size()));
+                byte[] compressed = deflate(String.join("\n", chunk).getBytes(StandardCharsets.UTF_8));
+
+                LocalDate minDate = LocalDate.MAX;
+                LocalDate maxDate = LocalDate.MIN;
+                for (String line : chunk) {
+                    LocalDate date = LocalDate.parse(line.substring(0, line.indexOf('|')));
+                    if (date.isBefore(minDate)) minDate = date;
+                    if (date.isAfter(maxDate)) maxDate = date;
+                }
+
+                file.write(compressed);
+                index.add(new Block(offset, compressed.length, minDate, maxDate, chunk.size()));
+                offset += compressed.length;
+            }
+
+            writeFooter(file, index, offset);
+            file.getFD().sync();
+        }
+    }
+
+    // =============================================================
+    // 2. READING
+    // =============================================================
+
+    /**
+     * Receives one archived line together with its position: block number (footer order) and row within the block.
+     */
+    public interface RowConsumer {
+        void accept(int block, int row, String line);
+    }
+
+    /**
+     * Streams the archived lines whose block date range overlaps [start, end] to the consumer, in file order.
+     * Only overlapping blocks are read from disk. They are inflated in parallel, one window of
+     * blocks per available processor at a time, so memory stays bounded on large archives.
+     * Rows inside an overlapping block are passed on as-is; callers filter by exact date.
+     */
+    public void forEachLine(LocalDate start, LocalDate end, RowConsumer consumer) throws IOException {
+        List<Block> index = readIndex();
+        List<Integer> overlapping = new ArrayList<>();
+        for (int i = 0; i < index.size(); i++) {
+            Block block = index.get(i);
+            if (!block.maxDate.isBefore(start) && !block.minDate.isAfter(end)) {
+                overlapping.add(i);
+            }
+        }
+        inflateBlocks(index, overlapping, consumer);
+    }
+
+    /**
+     * Streams every line of the given blocks (ascending block numbers) to the consumer, in file order.
+     * Blocks whose footer date range does not overlap [start, end] are skipped without being read.
+     */
+    public void forEachLineInBlocks(List<Integer> blockNumbers, LocalDate start, LocalDate end,
+                                    RowConsumer consumer) throws IOException {
+        if (blockNumbers.isEmpty()) return;
+        List<Block> index = readIndex();
+        List<Integer> overlapping = new ArrayList<>();
+        for (int blockNumber : blockNumbers) {
+            if (blockNumber < 0 || blockNumber >= index.size()) {
+                throw new IOException("Archive block " + blockNumber + " does not exist: " + fileLocation);
+            }
+            Block block = index.get(blockNumber);
+            if (!block.maxDate.isBefore(start) && !block.minDate.isAfter(end)) {
+                overlapping.add(blockNumber);
+            }
+        }
+        inflateBlocks(index, overlapping, consumer);
+    }
+
+    /**
+     * Returns the number of archived rows, taken from the footer without reading any block.
+     */
+    public long rowCount() throws IOException {
+        long rows = 0;
+        for (Block block : readIndex()) {
+            rows += block.rowCount;
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the footer index, or returns an empty index when no archive exists yet.
+     * A damaged footer is reported as an IOException.
+     */
+    private List<Block> readIndex() throws IOException {
+        List<Block> index = new ArrayList<>();
+        File archiveFile = new File(fileLocation);
+        if (!archiveFile.exists()) return index;
+
+        try (FileChannel channel = FileChannel.open(archiveFile.toPath(), StandardOpenOption.READ)) {
+            long footerOffset = footerOffset(channel);
+            long footerLength = channel.size() - TRAILER_SIZE - footerOffset;
+            if (footerLength > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt archive footer: " + fileLocation);
+            }
+            ByteBuffer footer = ByteBuffer.allocate((int) footerLength);
+            readFully(channel, footer, footerOffset);
+            footer.flip();
+
+            int blockCount = footer.getInt();
+            if (blockCount < 0 || footer.remaining() != (long) blockCount * BLOCK_ENTRY_SIZE) {
+                throw new IOException("Corrupt archive footer: " + fileLocation);
+            }
+            for (int i = 0; i < blockCount; i++) {
+                long offset = footer.getLong();
+                int length = footer.getInt();
+                LocalDate minDate = LocalDate.ofEpochDay(footer.getLong());
+                LocalDate maxDate = LocalDate.ofEpochDay(footer.getLong());
+                int rowCount = footer.getInt();
+                if (offset < 0 || length < 0 || offset + length > footerOffset) {
+                    throw new IOException("Corrupt archive footer: " + fileLocation);
+                }
+                index.add(new Block(offset, length, minDate, maxDate, rowCount));
+            }
+        } catch (DateTimeException e) {
+            throw new IOException("Corrupt archive footer: " + fileLocation, e);
+        }
+        return index;
+    }
+
+    // =============================================================
+    // 3. PRIVATE HELPER METHODS
+    // =============================================================
+
+    /**
+     * Returns where the footer starts, which is also the length of the block data.
+     */
+    private long footerOffset(FileChannel channel) throws IOException {
+        if (channel.size() < TRAILER_SIZE + Integer.BYTES) {
+            throw new IOException("Not a transaction archive: " + fileLocation);
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+        readFully(channel, trailer, channel.size() - TRAILER_SIZE);
+        trailer.flip();
+
+        long offset = trailer.getLong();
+        if (trailer.getInt() != MAGIC || offset < 0 || offset > channel.size() - TRAILER_SIZE - Integer.BYTES) {
+            throw new IOException("Not a transaction archive: " + fileLocation);
+        }
+        return offset;
+    }
+
+    private void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Truncated archive: " + fileLocation);
+            }
+        }
+    }
+
+    private void writeFooter(RandomAccessFile file, List<Block> index, long footerOffset) throws IOException {
+        file.writeInt(index.size());
+        for (Block block : index) {
+            file.writeLong(block.offset);
+            file.writeInt(block.length);
+            file.writeLong(block.minDate.toEpochDay());
+            file.writeLong(block.maxDate.toEpochDay());
+            file.writeInt(block.rowCount);
+        }
+        file.writeLong(footerOffset);
+        file.writeInt(MAGIC);
+    }
+
+    private byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(raw);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int count = deflater.deflate(buffer);
+            out.write(buffer, 0, count);
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private void inflateBlocks(List<Block> index, List<Integer> blockNumbers, RowConsumer consumer) throws IOException {
+        if (blockNumbers.isEmpty()) return;
+
+        int window = Runtime.getRuntime().availableProcessors();
+        try (RandomAccessFile file = new RandomAccessFile(fileLocation, "r")) {
+            for (int from = 0; from < blockNumbers.size(); from += window) {
+                List<Integer> batch = blockNumbers.subList(from, Math.min(from + window, blockNumbers.size()));
+                List<byte[]> compressedBlocks = new ArrayList<>();
+                for (int blockNumber : batch) {
+                    Block block = index.get(blockNumber);
+                    byte[] compressed = new byte[block.length];
+                    file.seek(block.offset);
+                    file.readFully(compressed);
+                    compressedBlocks.add(compressed);
+                }
+
+                List<List<String>> inflated = compressedBlocks.parallelStream()
+                        .map(this::inflateLines)
+                        .toList();
+                for (int i = 0; i < batch.size(); i++) {
+                    List<String> lines = inflated.get(i);
+                    for (int row = 0; row < lines.size(); row++) {
+                        consumer.accept(batch.get(i), row, lines.get(row));
+                    }
+                }
+            }
+        }
+    }
+
+    private List<String> inflateLines(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+        byte[] buffer = new byte[8192];
+        try {
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && inflater.needsInput()) {
+                    throw new UncheckedIOException(new EOFException("Truncated archive block"));
+                }
+                out.write(buffer, 0, count);
+            }
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Corrupt archive block", e));
+        } finally {
+            inflater.end();
+        }
+
+        String text = out.toString(StandardCharsets.UTF_8);
+        return Arrays.asList(text.split("\n"));
+    }
+
+    private record Block(long offset, int length, LocalDate minDate, LocalDate maxDate, int rowCount) {
+    }
+}
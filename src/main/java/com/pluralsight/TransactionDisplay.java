@@ -9,7 +9,6 @@ import com.pluralsight.cli.console;
 public class TransactionDisplay {
     private final TransactionServices service;
     private final Scanner scanner = new Scanner(System.in);
-    private final List<TransactionEntity> transactionEntityList;
 
 
     // ------------------------------------------
@@ -17,7 +16,6 @@ public class TransactionDisplay {
     // ------------------------------------------
     public TransactionDisplay(TransactionServices service) {
         this.service = service;
-        this.transactionEntityList = service.readFile();
     }
 
     // ------------------------------------------
@@ -86,12 +84,13 @@ public class TransactionDisplay {
         List<TransactionEntity> ongoingPayments = new ArrayList<>();
         displayFormat();
 
-        for (TransactionEntity transaction : transactionEntityList) {
+        // Streamed straight from the ledger so only the payments are kept in memory
+        service.forEachTransaction(LocalDate.MIN, LocalDate.MAX, transaction -> {
             if (transaction.getAmount() < 0) {
                 ongoingPayments.add(transaction);
                 transaction.display();
             }
-        }
+        });
 
         boolean isValid = false;
         double amount = 0;
@@ -133,44 +132,27 @@ public class TransactionDisplay {
     // Ledger Section
     // ------------------------------------------
     public void displayLedger() {
-        List<TransactionEntity> allTransactionEntityList = service.readFile();
-        // Sort it by newest date first
-        allTransactionEntityList.sort(Comparator.comparing(TransactionEntity::getDate).reversed());
-
-        List<TransactionEntity> remainingTransactionPayments = new ArrayList<>();
-        List<TransactionEntity> depositTransactionList = new ArrayList<>();
-
-        // Filtering which transaction is a payment or deposit from the last index
-        for (TransactionEntity entity : allTransactionEntityList) {
-            String description = entity.getDescription();
-            String[] parts = description.split(" ");
-            if (entity.getAmount() < 0 || parts[parts.length - 1].equalsIgnoreCase("payment")) {
-                remainingTransactionPayments.add(entity);
-            } else if (entity.getAmount() > 0 || parts[parts.length - 1].equalsIgnoreCase("deposit")) {
-                depositTransactionList.add(entity);
-            }
-        }
-
         boolean isValid = false;
         while (!isValid) {
             System.out.println("Please choose the services provided: \n");
             console.Information("A) All\nD) Deposits\nP) Payments\nR) Reports\n");
             String input = scanner.nextLine().trim();
 
+            // The full ledger is only loaded by the views that list all of it
             if (input.equalsIgnoreCase("A")) {
                 displayFormat();
-                service.displayEntries(allTransactionEntityList);
+                service.displayEntries(readRange(LocalDate.MIN, LocalDate.MAX));
                 isValid = true;
             } else if (input.equalsIgnoreCase("D")) {
                 displayFormat();
-                service.displayEntries(depositTransactionList);
+                service.displayEntries(ledgerEntries(false));
                 isValid = true;
             } else if (input.equalsIgnoreCase("P")) {
                 displayFormat();
-                service.displayEntries(remainingTransactionPayments);
+                service.displayEntries(ledgerEntries(true));
                 isValid = true;
             } else if (input.equalsIgnoreCase("R")) {
-                displayReports(allTransactionEntityList);
+                displayReports();
                 isValid = true;
             } else if (input.equalsIgnoreCase("H")) {
                 console.Information("Going back home...");
@@ -184,40 +166,48 @@ public class TransactionDisplay {
     // ------------------------------------------
     // Reports Section
     // ------------------------------------------
-    public void displayReports(List<TransactionEntity> allTransactionList) {
+    public void displayReports() {
         boolean isValid = false;
 
         while (!isValid) {
             try {
                 System.out.println("Please select the provided services: \n");
                 console.Information(
-                        "1) Month To Date\n2) Previous Month\n3) Year To Date\n4) Previous Year\n5) Search by Vendor\n6) Custom search\n0) Back\n"
+                        "1) Month To Date\n2) Previous Month\n3) Year To Date\n4) Previous Year\n5) Search by Vendor\n6) Custom search\n7) Insights\n0) Back\n"
                 );
                 int choice = scanner.nextInt();
                 scanner.nextLine();
+                // Date reports only load the range they cover so untouched archive blocks stay compressed
+                LocalDate today = LocalDate.now();
                 switch (choice) {
                     case 1:
-                        displayList(service.monthToDate(allTransactionList));
+                        displayList(service.monthToDate(readRange(today.withDayOfMonth(1), today)));
                         isValid = true;
                         break;
                     case 2:
-                        displayList(service.previousMonth(allTransactionList));
+                        displayList(service.previousMonth(
+                                readRange(today.minusMonths(1).withDayOfMonth(1), today.withDayOfMonth(1).minusDays(1))));
                         isValid = true;
                         break;
                     case 3:
-                        displayList(service.yearToDate(allTransactionList));
+                        displayList(service.yearToDate(readRange(today.withDayOfYear(1), today)));
                         isValid = true;
                         break;
                     case 4:
-                        displayList(service.previousYear(allTransactionList));
+                        displayList(service.previousYear(
+                                readRange(today.minusYears(1).withDayOfYear(1), today.withDayOfYear(1).minusDays(1))));
                         isValid = true;
                         break;
                     case 5:
-                        displaySearchByVendor(allTransactionList);
+                        displaySearchByVendor(readRange(LocalDate.MIN, LocalDate.MAX));
                         isValid = true;
                         break;
                     case 6:
-                        displayCustomSearch(allTransactionList);
+                        displayCustomSearch();
+                        isValid = true;
+                        break;
+                    case 7:
+                        displayInsights();
                         isValid = true;
                         break;
                     case 0:
@@ -262,29 +252,28 @@ public class TransactionDisplay {
         displayList(searchedList);
     }
 
-    public void displayCustomSearch(List<TransactionEntity> allTransactionList) {
+    public void displayCustomSearch() {
         System.out.println("Please enter the fields for filtering\n");
-        List<TransactionEntity> filteredList = allTransactionList;
 
+        String startInput;
         while (true) {
             System.out.println("Please enter start date (YYYY-MM-DD) or leave empty:");
-            String startInput = scanner.nextLine().trim();
+            startInput = scanner.nextLine().trim();
             try {
                 // Check if it's parsable to enable throwing the correct error
-                LocalDate startDate = parseDateOrNull(startInput);
-                filteredList = service.customSearch(startInput, filteredList, "startDate");
+                parseDateOrNull(startInput);
                 break;
             } catch (DateTimeParseException e) {
                 console.Warning("Invalid date. Try again.");
             }
         }
 
+        String endInput;
         while (true) {
             System.out.println("Please enter end date (YYYY-MM-DD) or leave empty:");
-            String endInput = scanner.nextLine().trim();
+            endInput = scanner.nextLine().trim();
             try {
-                LocalDate endDate = parseDateOrNull(endInput);
-                filteredList = service.customSearch(endInput, filteredList, "endDate");
+                parseDateOrNull(endInput);
                 break;
             } catch (DateTimeParseException e) {
                 console.Warning("Invalid date. Try again.");
@@ -293,23 +282,31 @@ public class TransactionDisplay {
 
         System.out.println("Please enter description or leave empty:");
         String description = scanner.nextLine().trim();
-        filteredList = service.customSearch(description, filteredList, "description");
 
         System.out.println("Please enter vendor name or leave empty:");
         String vendor = scanner.nextLine().trim();
-        filteredList = service.customSearch(vendor, filteredList, "vendor");
 
-        while (true) {
-            System.out.println("Please enter amount or leave empty:");
-            String amountInput = scanner.nextLine().trim();
-            try {
-                Double amount = parseAmountOrNull(amountInput);
-                filteredList = service.customSearch(amountInput, filteredList, "amount");
-                break;
-            } catch (InputMismatchException e) {
-                console.Warning("Invalid amount. Try again.");
-            }
+        Double minAmount = promptAmount("Please enter minimum amount (payments are negative) or leave empty:", null);
+        Double maxAmount = promptAmount("Please enter maximum amount or leave empty:", minAmount);
+
+        // Both starting points read the ledger on disk: the amount index when a range is given
+        // (only matching rows are read), otherwise just the requested dates. The other filters narrow it down
+        LocalDate startDate = parseDateOrNull(startInput);
+        LocalDate endDate = parseDateOrNull(endInput);
+        if (startDate == null) startDate = LocalDate.MIN;
+        if (endDate == null) endDate = LocalDate.MAX;
+
+        List<TransactionEntity> filteredList;
+        if (minAmount != null || maxAmount != null) {
+            filteredList = service.searchByAmountRange(minAmount, maxAmount, startDate, endDate);
+            filteredList.sort(Comparator.comparing(TransactionEntity::getDate).reversed());
+        } else {
+            filteredList = readRange(startDate, endDate);
         }
+        filteredList = service.customSearch(startInput, filteredList, "startDate");
+        filteredList = service.customSearch(endInput, filteredList, "endDate");
+        filteredList = service.customSearch(description, filteredList, "description");
+        filteredList = service.customSearch(vendor, filteredList, "vendor");
 
         if (filteredList.isEmpty()) {
             console.Information("No search results were found!");
@@ -322,6 +319,29 @@ public class TransactionDisplay {
         }
     }
 
+    public void displayInsights() {
+        LocalDate today = LocalDate.now();
+        displayInsightsFor("Month To Date", service.insights(today.withDayOfMonth(1), today));
+        displayInsightsFor("Year To Date", service.insights(today.withDayOfYear(1), today));
+    }
+
+    private void displayInsightsFor(String period, TransactionInsights insights) {
+        console.Information("\n==== Insights: %s (approximate) ====", period);
+        System.out.printf("%-25s %d\n", "Distinct vendors:", insights.distinctVendors());
+        if (insights.paymentCount() == 0) {
+            console.Warning("No payments were found");
+            return;
+        }
+        System.out.printf("%-25s $%.2f\n", "Median payment:", insights.paymentQuantile(0.5));
+        System.out.printf("%-25s $%.2f\n", "95th percentile payment:", insights.paymentQuantile(0.95));
+
+        // Guaranteed minimums: exact unless the period has more vendors than the sketch tracks
+        System.out.println("Top vendors by spend (at least):");
+        for (Map.Entry<String, Double> entry : insights.topVendorsBySpend(5)) {
+            System.out.printf("  %-23s >= $%.2f\n", entry.getKey(), entry.getValue());
+        }
+    }
+
     // ------------------------------------------
     // Helper Methods
     // ------------------------------------------
@@ -330,11 +350,55 @@ public class TransactionDisplay {
         System.out.println("--------------------------------------------------------------------------------");
     }
 
+    /**
+     * Returns the payments (or deposits) of the whole ledger, newest first.
+     */
+    private List<TransactionEntity> ledgerEntries(boolean payments) {
+        List<TransactionEntity> remainingTransactionPayments = new ArrayList<>();
+        List<TransactionEntity> depositTransactionList = new ArrayList<>();
+
+        // Filtering which transaction is a payment or deposit from the last index
+        for (TransactionEntity entity : readRange(LocalDate.MIN, LocalDate.MAX)) {
+            String description = entity.getDescription();
+            String[] parts = description.split(" ");
+            if (entity.getAmount() < 0 || parts[parts.length - 1].equalsIgnoreCase("payment")) {
+                remainingTransactionPayments.add(entity);
+            } else if (entity.getAmount() > 0 || parts[parts.length - 1].equalsIgnoreCase("deposit")) {
+                depositTransactionList.add(entity);
+            }
+        }
+        return payments ? remainingTransactionPayments : depositTransactionList;
+    }
+
+    private List<TransactionEntity> readRange(LocalDate start, LocalDate end) {
+        List<TransactionEntity> entities = service.readFile(start, end);
+        // Sort it by newest date first, same as the ledger
+        entities.sort(Comparator.comparing(TransactionEntity::getDate).reversed());
+        return entities;
+    }
+
     private LocalDate parseDateOrNull(String input) {
         if (input == null || input.isEmpty()) return null;
         return LocalDate.parse(input);
     }
 
+    private Double promptAmount(String message, Double minimum) {
+        while (true) {
+            System.out.println(message);
+            String amountInput = scanner.nextLine().trim();
+            try {
+                Double amount = parseAmountOrNull(amountInput);
+                if (amount != null && minimum != null && amount < minimum) {
+                    console.Warning("Maximum amount cannot be less than the minimum. Try again.");
+                } else {
+                    return amount;
+                }
+            } catch (NumberFormatException e) {
+                console.Warning("Invalid amount. Try again.");
+            }
+        }
+    }
+
     private Double parseAmountOrNull(String input) {
         if (input == null || input.isEmpty()) return null;
         return Double.parseDouble(input);
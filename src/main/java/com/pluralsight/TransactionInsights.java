@@ -0,0 +1,54 @@
+package com.pluralsight;
+
+import java.util.List;
+import java.util.Map;
+import com.pluralsight.sketch.HyperLogLog;
+import com.pluralsight.sketch.QuantileSketch;
+import com.pluralsight.sketch.SpaceSaving;
+
+/**
+ * Fixed-size summary of a period of transactions: distinct vendors,
+ * payment-size quantiles and top vendors by spend. Periods combine with merge().
+ */
+public class TransactionInsights {
+    private final HyperLogLog vendors = new HyperLogLog();
+    private final QuantileSketch paymentSizes = new QuantileSketch();
+    private final SpaceSaving vendorSpend = new SpaceSaving();
+
+    public void record(TransactionEntity entity) {
+        String vendor = entity.getVendor().toUpperCase();
+        vendors.add(vendor);
+
+        // Payments are stored as negative amounts
+        if (entity.getAmount() < 0) {
+            double payment = Math.abs(entity.getAmount());
+            paymentSizes.add(payment);
+            vendorSpend.add(vendor, payment);
+        }
+    }
+
+    public void merge(TransactionInsights other) {
+        vendors.merge(other.vendors);
+        paymentSizes.merge(other.paymentSizes);
+        vendorSpend.merge(other.vendorSpend);
+    }
+
+    public long distinctVendors() {
+        return vendors.estimate();
+    }
+
+    public long paymentCount() {
+        return paymentSizes.count();
+    }
+
+    public double paymentQuantile(double q) {
+        return paymentSizes.quantile(q);
+    }
+
+    /**
+     * Returns up to n vendors with the spend they are guaranteed to have, heaviest first.
+     */
+    public List<Map.Entry<String, Double>> topVendorsBySpend(int n) {
+        return vendorSpend.top(n);
+    }
+}
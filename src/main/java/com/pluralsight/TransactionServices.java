@@ -1,38 +1,78 @@
 package com.pluralsight;
 
 import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.*;
 import java.time.*;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Consumer;
 import com.pluralsight.cli.console;
 
 public class TransactionServices {
 
     private final String fileLocation = "data/transaction.csv";
+    private final String archiveLocation = "data/transaction.archive";
+    private final TransactionArchive archive = new TransactionArchive(archiveLocation);
+    private final Map<YearMonth, TransactionInsights> monthlyInsights = new HashMap<>();
+    // Sized for the real ledger by loadIndexes
+    private final DuplicateFilter duplicateFilter = new DuplicateFilter(0);
+    // Amount -> row location (see archiveRow / CSV row number), rebuilt by loadIndexes
+    private final AmountIndex amountIndex = new AmountIndex();
+    private int csvRowCount;
 
     // =============================================================
     // 1. CORE FILE I/O METHODS
     // =============================================================
 
     /**
-     * Appends a new transaction record to the CSV file.
-     * Format: date|time|description activity|vendor|amount
+     * Appends a new transaction entered now (from the console) to the CSV file.
      */
     public void saveToCSV(String description, String vendor, double amount, String activity) {
-        try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(fileLocation, true))) {
-            LocalDate today = LocalDate.now();
-            LocalTime todayTime = LocalTime.now();
+        saveToCSV(LocalDate.now(), LocalTime.now(), description, vendor, amount, activity);
+    }
+
+    /**
+     * Appends a new transaction record to the CSV file, stamped with the date and time the transaction
+     * happened. Upstream systems pass their original timestamp, so a retried transaction produces the
+     * same duplicate key and is skipped instead of being written twice.
+     * Format: date|time|description activity|vendor|amount
+     */
+    public void saveToCSV(LocalDate date, LocalTime transactionTime, String description, String vendor,
+                          double amount, String activity) {
+        String time = transactionTime.withNano(0).toString();
+        String fullDescription = description + " " + activity;
+        // Round once, exactly like the stored row, so a restart rebuilds the same key, index and insights
+        BigDecimal storedAmount = BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
+        double roundedAmount = storedAmount.doubleValue();
+
+        long key = DuplicateFilter.key(date, time, vendor, fullDescription, roundedAmount);
+        if (duplicateFilter.contains(key)) {
+            console.Warning("\nThis transaction was already recorded. Skipping duplicate\n");
+            return;
+        }
+        boolean dedupeFull = duplicateFilter.isFull();
+        if (dedupeFull) {
+            console.Warning("Duplicate check is at capacity; this transaction is saved without it");
+        }
 
+        try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(fileLocation, true))) {
             bufferedWriter.write(String.format(
-                    "\n%s|%s|%s %s|%s|%.2f",
-                    today,
-                    todayTime.withNano(0),
-                    description,
-                    activity,
+                    "\n%s|%s|%s|%s|%s",
+                    date,
+                    time,
+                    fullDescription,
                     vendor,
-                    amount
+                    storedAmount.toPlainString()
             ));
 
+            TransactionEntity entity = new TransactionEntity(roundedAmount, vendor, fullDescription, time, date);
+            if (!dedupeFull) {
+                duplicateFilter.add(key);
+            }
+            recordInsights(entity);
+            amountIndex.add(storedAmount.unscaledValue().longValueExact(), csvRowCount++);
             console.Success("\nCongrats! Your request is completed\n");
 
         } catch (IOException e) {
@@ -41,29 +81,149 @@ public class TransactionServices {
     }
 
     /**
-     * Reads all transactions from the CSV file and returns them as TransactionEntity objects.
+     * Reads all transactions from the archive and the CSV file and returns them as TransactionEntity objects.
      */
     public List<TransactionEntity> readFile() {
+        return readFile(LocalDate.MIN, LocalDate.MAX);
+    }
+
+    /**
+     * Reads the transactions dated between start and end (inclusive).
+     * Only the archive blocks whose date range overlaps the query are decompressed.
+     */
+    public List<TransactionEntity> readFile(LocalDate start, LocalDate end) {
         List<TransactionEntity> entityList = new ArrayList<>();
+        forEachTransaction(start, end, entityList::add);
+        return entityList;
+    }
 
+    /**
+     * Streams the transactions dated between start and end (inclusive) to the consumer
+     * without collecting them, archive rows first and then the CSV rows.
+     */
+    public void forEachTransaction(LocalDate start, LocalDate end, Consumer<TransactionEntity> consumer) {
+        forEachLocatedTransaction(start, end, (location, entity) -> consumer.accept(entity));
+    }
+
+    /**
+     * Same as forEachTransaction, but also passes each row's location for the amount index.
+     * Returns the number of rows in the CSV file.
+     */
+    private int forEachLocatedTransaction(LocalDate start, LocalDate end, LocatedConsumer consumer) {
+        try {
+            archive.forEachLine(start, end,
+                    (block, row, line) -> acceptIfInRange(line, start, end, archiveRow(block, row), consumer));
+        } catch (IOException | UncheckedIOException e) {
+            console.Deny("Archive could not be read");
+        }
+
+        int row = 0;
         try (BufferedReader bufferedReader = new BufferedReader(new FileReader(fileLocation))) {
             bufferedReader.readLine(); // Skip header if exists
             String input;
 
             while ((input = bufferedReader.readLine()) != null) {
-                String[] parts = input.split("\\|");
-                if (parts.length == 5) {
-                    LocalDate date = LocalDate.parse(parts[0]);
-                    double amount = Double.parseDouble(parts[4]);
-                    TransactionEntity entity = new TransactionEntity(amount, parts[3], parts[2], parts[1], date);
-                    entityList.add(entity);
+                if (acceptIfInRange(input, start, end, row, consumer)) {
+                    row++;
                 }
             }
         } catch (IOException e) {
             console.Deny("File not found");
         }
+        return row;
+    }
 
-        return entityList;
+    /**
+     * Moves every CSV row dated before the cutoff into the compressed archive
+     * and rewrites the CSV file with the remaining rows.
+     * Both new files are written to temporary files first and then moved into place:
+     * the archive first, then the CSV. If the app stops in between, the next run finishes the CSV move,
+     * so rows are never lost or kept in both files.
+     */
+    public void archiveBefore(LocalDate cutoff) {
+        Path csvPath = Path.of(fileLocation);
+        Path csvTemp = Path.of(fileLocation + ".tmp");
+        Path archivePath = Path.of(archiveLocation);
+        Path archiveTemp = Path.of(archiveLocation + ".tmp");
+
+        try {
+            if (Files.exists(archiveTemp)) {
+                // Stopped before the archive was replaced: nothing was committed yet
+                Files.delete(archiveTemp);
+                Files.deleteIfExists(csvTemp);
+            } else if (Files.exists(csvTemp)) {
+                // Stopped after the archive was replaced: finish the CSV half
+                moveIntoPlace(csvTemp, csvPath);
+            }
+        } catch (IOException e) {
+            console.Deny("Archive could not be updated");
+            return;
+        }
+
+        List<String> archived = new ArrayList<>();
+        List<String> remaining = new ArrayList<>();
+        String header;
+
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(fileLocation))) {
+            header = bufferedReader.readLine();
+            String input;
+
+            while ((input = bufferedReader.readLine()) != null) {
+                if (input.isBlank()) continue;
+
+                TransactionEntity entity;
+                try {
+                    entity = parseLine(input);
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    entity = null;
+                }
+
+                if (entity == null) {
+                    // Rows readFile cannot parse (e.g. a '|' inside a vendor name) stay in the CSV untouched
+                    remaining.add(input);
+                } else if (entity.getDate().isBefore(cutoff)) {
+                    archived.add(input.trim());
+                } else {
+                    remaining.add(input.trim());
+                }
+            }
+        } catch (IOException e) {
+            console.Deny("File not found");
+            return;
+        }
+
+        if (archived.isEmpty()) return;
+
+        boolean archiveCommitted = false;
+        try {
+            archive.writeAppended(archived, archiveTemp);
+
+            // Same layout saveToCSV produces: header, then each row prefixed with a newline
+            try (FileOutputStream out = new FileOutputStream(csvTemp.toFile());
+                 BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(out))) {
+                bufferedWriter.write(header == null ? "date|time|description|vendor|amount" : header);
+                for (String line : remaining) {
+                    bufferedWriter.write("\n" + line);
+                }
+                bufferedWriter.flush();
+                out.getFD().sync();
+            }
+
+            moveIntoPlace(archiveTemp, archivePath);
+            archiveCommitted = true;
+            moveIntoPlace(csvTemp, csvPath);
+        } catch (IOException | UncheckedIOException e) {
+            console.Deny("Archive could not be updated");
+            // Once the archive is replaced the CSV temp file must survive so the next run can finish the move
+            if (!archiveCommitted) {
+                try {
+                    Files.deleteIfExists(archiveTemp);
+                    Files.deleteIfExists(csvTemp);
+                } catch (IOException ignored) {
+                    // Leftover temporary files are cleaned up on the next run
+                }
+            }
+        }
     }
 
     // =============================================================
@@ -188,14 +348,14 @@ public class TransactionServices {
     }
 
     /**
-     * Filters transactions dynamically by date, vendor, description, or amount.
+     * Filters transactions dynamically by date, vendor or description.
+     * Amount ranges go through searchByAmountRange, which uses the amount index.
      */
     public List<TransactionEntity> customSearch(String input, List<TransactionEntity> list, String filterType) {
         if (input == null || input.isEmpty()) return list;
 
         List<TransactionEntity> filtered = new ArrayList<>();
         LocalDate date = isDate(input);
-        Double amount = isAmount(input) ? Double.parseDouble(input) : null;
 
         // Filtering process ensuring that each input isn't null
         for (TransactionEntity entity : list) {
@@ -208,10 +368,6 @@ public class TransactionServices {
                     if (date != null && (entity.getDate().isBefore(date) || entity.getDate().isEqual(date)))
                         filtered.add(entity);
                     break;
-                case "amount":
-                    if (amount != null && Math.abs(entity.getAmount() - amount) < 0.01)
-                        filtered.add(entity);
-                    break;
                 case "description":
                     if (entity.getDescription().toLowerCase().contains(input.toLowerCase()))
                         filtered.add(entity);
@@ -226,6 +382,68 @@ public class TransactionServices {
         return filtered;
     }
 
+    /**
+     * Returns every ledger transaction whose amount is between min and max (inclusive, to the cent)
+     * and whose date is between start and end (inclusive). A null amount bound leaves that side open.
+     * The amount index gives the matching row locations, so only archive blocks that hold a match and
+     * overlap the dates are decompressed, and only matching rows are parsed.
+     */
+    public List<TransactionEntity> searchByAmountRange(Double min, Double max, LocalDate start, LocalDate end) {
+        long from = min == null ? Long.MIN_VALUE : toCents(min);
+        long to = max == null ? Long.MAX_VALUE : toCents(max);
+
+        List<TransactionEntity> result = new ArrayList<>();
+        if (from > to) return result;
+
+        // Sorted, so CSV rows (block part 0) come first and archive rows are grouped by block
+        long[] locations = amountIndex.locationsBetween(from, to);
+        if (locations.length == 0) return result;
+
+        List<Integer> blocks = new ArrayList<>();
+        for (long location : locations) {
+            int block = (int) (location >>> 32) - 1;
+            if (block >= 0 && (blocks.isEmpty() || blocks.get(blocks.size() - 1) != block)) {
+                blocks.add(block);
+            }
+        }
+        LocatedConsumer collect = (location, entity) -> result.add(entity);
+        try {
+            archive.forEachLineInBlocks(blocks, start, end, (block, row, line) -> {
+                long location = archiveRow(block, row);
+                if (Arrays.binarySearch(locations, location) >= 0) {
+                    acceptIfInRange(line, start, end, location, collect);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            console.Deny("Archive could not be read");
+        }
+
+        if (locations[0] < 1L << 32) {
+            long lastCsvRow = locations[0];
+            for (long location : locations) {
+                if (location < 1L << 32) lastCsvRow = location;
+            }
+
+            try (BufferedReader bufferedReader = new BufferedReader(new FileReader(fileLocation))) {
+                bufferedReader.readLine(); // Skip header if exists
+                String input;
+                int row = 0;
+
+                // Rows are only counted here; parseLine runs on the matching ones
+                while (row <= lastCsvRow && (input = bufferedReader.readLine()) != null) {
+                    if (!isRow(input)) continue;
+                    if (Arrays.binarySearch(locations, row) >= 0) {
+                        acceptIfInRange(input, start, end, row, collect);
+                    }
+                    row++;
+                }
+            } catch (IOException e) {
+                console.Deny("File not found");
+            }
+        }
+        return result;
+    }
+
     // =============================================================
     // 5. PAYMENT CALCULATIONS
     // =============================================================
@@ -245,23 +463,146 @@ public class TransactionServices {
     }
 
     // =============================================================
-    // 6. PRIVATE HELPER METHODS
+    // 6. INDEXES & INSIGHTS (SKETCHES)
     // =============================================================
 
-    private LocalDate isDate(String input) {
+    /**
+     * Rebuilds the duplicate filter, the amount index and the per-month insight sketches
+     * in one streaming pass over the ledger. Call it again after archiveBefore, which moves rows.
+     */
+    public void loadIndexes() {
+        // Presized from the archive footer and the CSV line count so the rebuild never rehashes
+        long expectedRows = countCsvLines();
         try {
-            return LocalDate.parse(input);
-        } catch (DateTimeParseException e) {
-            return null;
+            expectedRows += archive.rowCount();
+        } catch (IOException e) {
+            console.Deny("Archive could not be read");
+        }
+        duplicateFilter.clear((int) Math.min(expectedRows, Integer.MAX_VALUE));
+        amountIndex.clear();
+        monthlyInsights.clear();
+        csvRowCount = forEachLocatedTransaction(LocalDate.MIN, LocalDate.MAX, (location, entity) -> {
+            if (!duplicateFilter.isFull()) {
+                duplicateFilter.add(DuplicateFilter.key(entity.getDate(), entity.getTime(), entity.getVendor(),
+                        entity.getDescription(), entity.getAmount()));
+            }
+            amountIndex.add(toCents(entity.getAmount()), location);
+            recordInsights(entity);
+        });
+        amountIndex.sort();
+        if (duplicateFilter.isFull()) {
+            console.Warning("Ledger is larger than the duplicate check can hold; older rows are not checked");
         }
     }
 
-    private boolean isAmount(String input) {
+    /**
+     * Merges the monthly sketches covering start to end (whole months) into one summary.
+     * Cost depends only on the number of months, not on the number of transactions.
+     */
+    public TransactionInsights insights(LocalDate start, LocalDate end) {
+        TransactionInsights merged = new TransactionInsights();
+        YearMonth last = YearMonth.from(end);
+
+        for (YearMonth month = YearMonth.from(start); !month.isAfter(last); month = month.plusMonths(1)) {
+            TransactionInsights insights = monthlyInsights.get(month);
+            if (insights != null) {
+                merged.merge(insights);
+            }
+        }
+        return merged;
+    }
+
+    private void recordInsights(TransactionEntity entity) {
+        monthlyInsights.computeIfAbsent(YearMonth.from(entity.getDate()), month -> new TransactionInsights())
+                .record(entity);
+    }
+
+    // =============================================================
+    // 7. PRIVATE HELPER METHODS
+    // =============================================================
+
+    private long countCsvLines() {
+        long lines = 0;
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(fileLocation))) {
+            while (bufferedReader.readLine() != null) {
+                lines++;
+            }
+        } catch (IOException e) {
+            // A missing CSV is reported by the read that follows
+        }
+        return lines;
+    }
+
+    private void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private TransactionEntity parseLine(String input) {
+        if (!isRow(input)) return null;
+        String[] parts = input.trim().split("\\|");
+        LocalDate date = LocalDate.parse(parts[0]);
+        double amount = Double.parseDouble(parts[4]);
+        return new TransactionEntity(amount, parts[3], parts[2], parts[1], date);
+    }
+
+    /**
+     * True when the line splits into exactly 5 fields, without splitting it.
+     * Mirrors split("\\|"), which drops trailing empty fields, so row numbers agree with parseLine.
+     */
+    private boolean isRow(String input) {
+        String line = input.trim();
+        int length = line.length();
+        while (length > 0 && line.charAt(length - 1) == '|') {
+            length--;
+        }
+
+        int separators = 0;
+        for (int i = 0; i < length; i++) {
+            if (line.charAt(i) == '|') separators++;
+        }
+        return separators == 4;
+    }
+
+    /**
+     * Parses the line and passes it on if it falls in the date range. Returns false for lines that are not rows.
+     */
+    private boolean acceptIfInRange(String input, LocalDate start, LocalDate end, long location,
+                                    LocatedConsumer consumer) {
+        TransactionEntity entity = parseLine(input);
+        if (entity == null) return false;
+        if (!entity.getDate().isBefore(start) && !entity.getDate().isAfter(end)) {
+            consumer.accept(location, entity);
+        }
+        return true;
+    }
+
+    /**
+     * Row location of an archived line. CSV rows use their row number, so their upper half is always 0.
+     */
+    private static long archiveRow(int block, int row) {
+        return ((long) (block + 1) << 32) | row;
+    }
+
+    private interface LocatedConsumer {
+        void accept(long location, TransactionEntity entity);
+    }
+
+    /**
+     * Cents the way saveToCSV stores amounts (2 places, HALF_UP), so search bounds and indexed rows agree.
+     */
+    private long toCents(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private LocalDate isDate(String input) {
         try {
-            Double.parseDouble(input);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+            return LocalDate.parse(input);
+        } catch (DateTimeParseException e) {
+            return null;
         }
     }
 }
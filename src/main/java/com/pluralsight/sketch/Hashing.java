@@ -0,0 +1,38 @@
+package com.pluralsight.sketch;
+
+/**
+ * 64-bit hashing shared by the sketches. Strings are hashed char by char so no byte[] is allocated.
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    public static long hash64(CharSequence value) {
+        return hash64(0x9E3779B97F4A7C15L, value);
+    }
+
+    /**
+     * Hashes value starting from seed, so several fields can be chained into one key.
+     * The length is mixed in first, so ("AB", "C") and ("A", "BC") chain to different hashes.
+     */
+    public static long hash64(long seed, CharSequence value) {
+        long h = mix(seed + value.length());
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Final avalanche step (MurmurHash3 fmix64) so every input bit affects every output bit.
+     */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,67 @@
+package com.pluralsight.sketch;
+
+/**
+ * Mergeable quantile sketch over positive amounts using logarithmic buckets (DDSketch style).
+ * Every returned quantile is within 1% of a true value; memory is a fixed array of bucket counters.
+ * Two sketches merge by adding their bucket counts.
+ */
+public class QuantileSketch {
+
+    private static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_VALUE = 0.01;
+    private static final double MAX_VALUE = 1e12;
+    private static final int MIN_INDEX = bucketIndex(MIN_VALUE);
+    private static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) - MIN_INDEX + 1;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long zeroCount;
+    private long count;
+
+    public void add(double value) {
+        count++;
+        if (value < MIN_VALUE) {
+            zeroCount++;
+            return;
+        }
+        int index = bucketIndex(Math.min(value, MAX_VALUE)) - MIN_INDEX;
+        buckets[index]++;
+    }
+
+    public void merge(QuantileSketch other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] += other.buckets[i];
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the approximate value at quantile q (0.0 - 1.0), or 0 when the sketch is empty.
+     */
+    public double quantile(double q) {
+        if (count == 0) return 0;
+
+        long rank = (long) Math.ceil(q * count);
+        long seen = zeroCount;
+        if (rank <= seen) return 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                // Midpoint of the bucket keeps the relative error symmetric
+                return 2 * Math.pow(GAMMA, i + MIN_INDEX) / (GAMMA + 1);
+            }
+        }
+        return MAX_VALUE;
+    }
+
+    private static int bucketIndex(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+}
@@ -0,0 +1,103 @@
+package com.pluralsight.sketch;
+
+import java.util.*;
+
+/**
+ * Weighted Space-Saving heavy-hitter sketch. Tracks at most a fixed number of keys;
+ * when full, the smallest counter is replaced and the new key inherits its weight as error.
+ * Every counter's weight is an upper bound and weight minus error is a guaranteed lower bound.
+ * Below the capacity no key is ever evicted and both bounds are exact.
+ */
+public class SpaceSaving {
+
+    private static final int CAPACITY = 1024;
+
+    private final Map<String, Counter> counters = new HashMap<>();
+
+    public void add(String key, double weight) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.weight += weight;
+        } else if (counters.size() < CAPACITY) {
+            counters.put(key, new Counter(weight, 0));
+        } else {
+            String minKey = minKey();
+            Counter evicted = counters.remove(minKey);
+            counters.put(key, new Counter(evicted.weight + weight, evicted.weight));
+        }
+    }
+
+    /**
+     * Adds every counter of the other sketch, then trims back down to the capacity.
+     * A key missing from a full sketch may still have up to that sketch's minimum weight there,
+     * so the minimum is added to its weight and to its error.
+     */
+    public void merge(SpaceSaving other) {
+        double thisMissing = isFull() ? counters.get(minKey()).weight : 0;
+        double otherMissing = other.isFull() ? other.counters.get(other.minKey()).weight : 0;
+
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            if (!other.counters.containsKey(entry.getKey())) {
+                entry.getValue().weight += otherMissing;
+                entry.getValue().error += otherMissing;
+            }
+        }
+        for (Map.Entry<String, Counter> entry : other.counters.entrySet()) {
+            Counter theirs = entry.getValue();
+            Counter ours = counters.get(entry.getKey());
+            if (ours != null) {
+                ours.weight += theirs.weight;
+                ours.error += theirs.error;
+            } else {
+                counters.put(entry.getKey(), new Counter(theirs.weight + thisMissing, theirs.error + thisMissing));
+            }
+        }
+
+        if (counters.size() > CAPACITY) {
+            List<Map.Entry<String, Counter>> entries = new ArrayList<>(counters.entrySet());
+            entries.sort(Comparator.comparingDouble(entry -> entry.getValue().weight));
+            for (Map.Entry<String, Counter> entry : entries.subList(0, entries.size() - CAPACITY)) {
+                counters.remove(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Returns up to n keys with their guaranteed (lower bound) weight, heaviest first.
+     */
+    public List<Map.Entry<String, Double>> top(int n) {
+        List<Map.Entry<String, Double>> entries = new ArrayList<>();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            entries.add(Map.entry(entry.getKey(), counter.weight - counter.error));
+        }
+        entries.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        return entries.subList(0, Math.min(n, entries.size()));
+    }
+
+    private boolean isFull() {
+        return counters.size() >= CAPACITY;
+    }
+
+    private String minKey() {
+        String minKey = null;
+        double minWeight = Double.MAX_VALUE;
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            if (entry.getValue().weight < minWeight) {
+                minWeight = entry.getValue().weight;
+                minKey = entry.getKey();
+            }
+        }
+        return minKey;
+    }
+
+    private static class Counter {
+        private double weight;
+        private double error;
+
+        private Counter(double weight, double error) {
+            this.weight = weight;
+            this.error = error;
+        }
+    }
+}